@@ -1,7 +1,9 @@
 grammar Program;
 
 
-program : (variableDeclaration ';' | functionDeclaration | preprocessor)*;
+program : topLevel*;
+
+topLevel : variableDeclaration ';' | functionDeclaration | preprocessor;
 
 scope: '{' statement* '}';
 
@@ -0,0 +1,32 @@
+package feo;
+
+import org.antlr.v4.runtime.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CollectingListener extends BaseErrorListener {
+    private final List<ObfuscateDiagnostic> diagnostics = new ArrayList<>();
+
+    @Override
+    public void syntaxError(final Recognizer<?, ?> recognizer,
+                            final Object offendingSymbol,
+                            final int line,
+                            final int charPositionInLine,
+                            final String msg,
+                            final RecognitionException e) {
+        final int charIndex;
+        if (offendingSymbol instanceof Token token) {
+            charIndex = token.getStartIndex();
+        } else if (recognizer instanceof Lexer lexer) {
+            charIndex = lexer._tokenStartCharIndex;
+        } else {
+            charIndex = -1;
+        }
+        diagnostics.add(new ObfuscateDiagnostic(line, charPositionInLine, charIndex, msg));
+    }
+
+    public List<ObfuscateDiagnostic> diagnostics() {
+        return diagnostics;
+    }
+}
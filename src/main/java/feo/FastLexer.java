@@ -0,0 +1,364 @@
+package feo;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hand-written equivalent of ProgramLexer: longest match wins, ties go to the rule defined first.
+public class FastLexer extends Lexer {
+    private static final int ASCII = 128;
+    private static final byte DIGIT = 1;
+    private static final byte IDENT_START = 2;
+    private static final byte IDENT_PART = 4;
+    private static final byte SPACE = 8;
+    private static final byte ESCAPED = 16;
+    private static final byte[] CLASSES = new byte[ASCII];
+    private static final List<List<Literal>> LITERALS = new ArrayList<>();
+
+    static {
+        for (char c = '0'; c <= '9'; ++c) {
+            CLASSES[c] |= DIGIT | IDENT_PART;
+        }
+        for (char c = 'a'; c <= 'z'; ++c) {
+            CLASSES[c] |= IDENT_START | IDENT_PART;
+            CLASSES[Character.toUpperCase(c)] |= IDENT_START | IDENT_PART;
+        }
+        CLASSES['_'] |= IDENT_START | IDENT_PART;
+        for (final char c : " \t\n\r".toCharArray()) {
+            CLASSES[c] |= SPACE;
+        }
+        for (final char c : "\"ntr'0".toCharArray()) {
+            CLASSES[c] |= ESCAPED;
+        }
+        for (int i = 0; i < ASCII; ++i) {
+            LITERALS.add(new ArrayList<>());
+        }
+        final Vocabulary vocabulary = ProgramLexer.VOCABULARY;
+        for (int type = 1; type <= vocabulary.getMaxTokenType(); ++type) {
+            final String name = vocabulary.getLiteralName(type);
+            if (name != null) {
+                final String text = name.substring(1, name.length() - 1);
+                LITERALS.get(text.charAt(0)).add(new Literal(text.codePoints().toArray(), type));
+            }
+        }
+    }
+
+    private int[] data;
+    private int position;
+    private int line;
+    private int charPositionInLine;
+    private int reach;
+
+    public FastLexer(final CharStream input) {
+        super(input);
+        load();
+    }
+
+    private void load() {
+        final String text = _input.size() == 0 ? "" : _input.getText(Interval.of(0, _input.size() - 1));
+        data = new int[text.codePointCount(0, text.length())];
+        for (int i = 0, j = 0; i < text.length(); ++j) {
+            data[j] = text.codePointAt(i);
+            i += Character.charCount(data[j]);
+        }
+        position = 0;
+        line = 1;
+        charPositionInLine = 0;
+        _token = null;
+        _type = Token.INVALID_TYPE;
+        _channel = Token.DEFAULT_CHANNEL;
+        _tokenStartCharIndex = -1;
+        _tokenStartLine = -1;
+        _tokenStartCharPositionInLine = -1;
+        _text = null;
+        _hitEOF = false;
+    }
+
+    @Override
+    public void setInputStream(final IntStream input) {
+        _input = (CharStream) input;
+        _tokenFactorySourcePair = new Pair<>(this, _input);
+        load();
+    }
+
+    @Override
+    public void reset() {
+        load();
+    }
+
+    @Override
+    public Token nextToken() {
+        // Keeps the inherited state the way Lexer.nextToken does, for getToken, getType and getText
+        while (true) {
+            if (_hitEOF) {
+                return emitEOF();
+            }
+            _token = null;
+            _channel = Token.DEFAULT_CHANNEL;
+            _tokenStartCharIndex = position;
+            _tokenStartLine = line;
+            _tokenStartCharPositionInLine = charPositionInLine;
+            _text = null;
+            _type = Token.INVALID_TYPE;
+            if (position == data.length) {
+                _hitEOF = true;
+                _type = Token.EOF;
+                return emitEOF();
+            }
+            reach = position;
+            final int c = data[position];
+            int type;
+            int end;
+            if (is(c, DIGIT)) {
+                type = ProgramLexer.INT;
+                end = skipWhile(position + 1, DIGIT);
+            } else if (is(c, IDENT_START)) {
+                type = ProgramLexer.IDENT;
+                end = skipWhile(position + 1, IDENT_PART);
+            } else if (is(c, SPACE)) {
+                type = ProgramLexer.WS;
+                end = skipWhile(position + 1, SPACE);
+            } else if (c == '\'') {
+                type = ProgramLexer.CHAR;
+                end = matchChar();
+            } else if (c == '"') {
+                type = ProgramLexer.STRING;
+                end = matchString();
+            } else if (c == '\\') {
+                type = ProgramLexer.ESC;
+                end = matchEscape(position);
+            } else if (c == '#') {
+                type = ProgramLexer.PREPROCESSOR;
+                end = matchPreprocessor();
+            } else if (c == '/') {
+                type = at(position + 1) == '*' ? ProgramLexer.MULTILINE_COMMENT : ProgramLexer.COMMENT;
+                end = type == ProgramLexer.COMMENT ? matchComment() : matchMultilineComment();
+            } else {
+                type = Token.INVALID_TYPE;
+                end = -1;
+            }
+            if (c < ASCII) {
+                // Literals are defined before every named rule, so they also win ties
+                for (final Literal literal : LITERALS.get(c)) {
+                    if (position + literal.text().length >= end) {
+                        final int literalEnd = matchLiteral(literal.text());
+                        if (literalEnd > 0 && literalEnd >= end) {
+                            type = literal.type();
+                            end = literalEnd;
+                        }
+                    }
+                }
+            }
+            final int start = position;
+            final boolean skip;
+            if (end < 0) {
+                recover();
+                skip = true;
+            } else if (type == ProgramLexer.WS || type == ProgramLexer.MULTILINE_COMMENT) {
+                advance(end);
+                skip = true;
+            } else {
+                // No other token can span a line break
+                charPositionInLine += end - position;
+                position = end;
+                skip = type == ProgramLexer.COMMENT;
+            }
+            _hitEOF |= position == data.length;
+            if (skip) {
+                _type = SKIP;
+                continue;
+            }
+            _type = type;
+            emit(_factory.create(_tokenFactorySourcePair, type, null, Token.DEFAULT_CHANNEL,
+                    start, end - 1, _tokenStartLine, _tokenStartCharPositionInLine));
+            return _token;
+        }
+    }
+
+    private void recover() {
+        // Like ProgramLexer, drops everything up to and including the character matching died on
+        final int stop = Math.min(reach, data.length - 1);
+        final String text = new String(data, position, stop - position + 1);
+        final LexerNoViableAltException e = new LexerNoViableAltException(this, _input, position, null);
+        getErrorListenerDispatch().syntaxError(this, null, _tokenStartLine, _tokenStartCharPositionInLine,
+                "token recognition error at: '" + getErrorDisplay(text) + "'", e);
+        advance(stop + 1);
+    }
+
+    private void advance(final int end) {
+        for (; position < end; ++position) {
+            if (data[position] == '\n') {
+                ++line;
+                charPositionInLine = 0;
+            } else {
+                ++charPositionInLine;
+            }
+        }
+    }
+
+    private int at(final int index) {
+        return index < data.length ? data[index] : Token.EOF;
+    }
+
+    private static boolean is(final int c, final byte mask) {
+        return 0 <= c && c < ASCII && (CLASSES[c] & mask) != 0;
+    }
+
+    private static boolean isNewLine(final int c) {
+        return c == '\n' || c == '\r';
+    }
+
+    // Returns the end of the match, or -1 after recording where matching died.
+    private int die(final int index) {
+        reach = Math.max(reach, index);
+        return -1;
+    }
+
+    private int skipWhile(int index, final byte mask) {
+        while (is(at(index), mask)) {
+            ++index;
+        }
+        return index;
+    }
+
+    private int matchLiteral(final int[] text) {
+        for (int i = 0; i < text.length; ++i) {
+            if (at(position + i) != text[i]) {
+                return die(position + i);
+            }
+        }
+        return position + text.length;
+    }
+
+    private int matchEscape(final int index) {
+        return is(at(index + 1), ESCAPED) ? index + 2 : die(index + 1);
+    }
+
+    private int matchChar() {
+        final int c = at(position + 1);
+        final int end;
+        if (c == '\\') {
+            end = matchEscape(position + 1);
+            if (end < 0) {
+                return -1;
+            }
+        } else if (c == Token.EOF || c == '\'' || isNewLine(c)) {
+            return die(position + 1);
+        } else {
+            end = position + 2;
+        }
+        return at(end) == '\'' ? end + 1 : die(end);
+    }
+
+    private int matchString() {
+        int index = position + 1;
+        while (true) {
+            final int c = at(index);
+            if (c == '"') {
+                return index + 1;
+            } else if (c == '\\') {
+                index = matchEscape(index);
+                if (index < 0) {
+                    return -1;
+                }
+            } else if (c == Token.EOF || isNewLine(c)) {
+                return die(index);
+            } else {
+                ++index;
+            }
+        }
+    }
+
+    private int matchPreprocessor() {
+        int index = position + 1;
+        while (at(index) != Token.EOF && !isNewLine(at(index))) {
+            ++index;
+        }
+        return index == position + 1 ? die(index) : index;
+    }
+
+    private int matchComment() {
+        if (at(position + 1) != '/') {
+            return die(position + 1);
+        }
+        int index = position + 2;
+        while (at(index) != Token.EOF && !isNewLine(at(index))) {
+            ++index;
+        }
+        return index;
+    }
+
+    private int matchMultilineComment() {
+        for (int index = position + 2; index < data.length; ++index) {
+            if (data[index] == '*' && at(index + 1) == '/') {
+                return index + 2;
+            }
+        }
+        return die(data.length);
+    }
+
+    @Override
+    public Token emitEOF() {
+        final Token eof = _factory.create(_tokenFactorySourcePair, Token.EOF, null, Token.DEFAULT_CHANNEL,
+                position, position - 1, line, charPositionInLine);
+        emit(eof);
+        return eof;
+    }
+
+    @Override
+    public String getText() {
+        return _text != null ? _text : new String(data, _tokenStartCharIndex, position - _tokenStartCharIndex);
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return charPositionInLine;
+    }
+
+    @Override
+    public int getCharIndex() {
+        return position;
+    }
+
+    @Override
+    public String getGrammarFileName() {
+        return "Program.g4";
+    }
+
+    @Override
+    public String[] getRuleNames() {
+        return ProgramLexer.ruleNames;
+    }
+
+    @Override
+    public String[] getModeNames() {
+        return ProgramLexer.modeNames;
+    }
+
+    @Override
+    public String[] getChannelNames() {
+        return ProgramLexer.channelNames;
+    }
+
+    @Override
+    public Vocabulary getVocabulary() {
+        return ProgramLexer.VOCABULARY;
+    }
+
+    @Override
+    public ATN getATN() {
+        return ProgramLexer._ATN;
+    }
+
+    private record Literal(int[] text, int type) {
+    }
+}
@@ -4,25 +4,66 @@ import org.antlr.v4.runtime.*;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
 
 public class Main {
+    private static final String RECOVER_OPTION = "--recover";
+    private static final String PIPELINED_OPTION = "--pipelined";
+    private static final Set<String> OPTIONS = Set.of(RECOVER_OPTION, PIPELINED_OPTION);
+    private static final String STDIN = "-";
+    private static final int STDIN_BUFFER_SIZE = 4096;
+
     public static void main(final String[] args) {
-        if (args.length != 1) {
-            System.err.println("Specify input file name");
+        final String mode = args.length == 2 ? args[0] : null;
+        final String file = args.length == 0 ? STDIN : args[args.length - 1];
+        if (args.length > 2 || mode != null && !OPTIONS.contains(mode) || OPTIONS.contains(file)
+                || mode != null && file.equals(STDIN)) {
+            System.err.println("Usage: [" + RECOVER_OPTION + " | " + PIPELINED_OPTION + "] <input file>");
+            System.err.println("   or: [" + STDIN + "] to stream standard input");
+            return;
+        }
+        if (file.equals(STDIN)) {
+            final BufferedWriter writer = stdout();
+            try {
+                ObfuscateTool.obfuscateStreaming(
+                        new UnbufferedCharStream(System.in, STDIN_BUFFER_SIZE, StandardCharsets.UTF_8), writer);
+            } catch (final ObfuscateParseException e) {
+                System.err.println("Parsing error: " + e.getMessage());
+            } catch (final IOException e) {
+                System.err.println("Unexpected IO error: " + e.getMessage());
+            }
             return;
         }
         final CharStream in;
         try {
-            in = CharStreams.fromFileName(args[0]);
+            in = CharStreams.fromFileName(file);
         } catch (final IOException e) {
             System.err.println("Error during reading input file: " + e.getMessage());
             return;
         }
+        if (PIPELINED_OPTION.equals(mode)) {
+            try {
+                ObfuscateTool.obfuscatePipelined(in, stdout());
+            } catch (final ObfuscateParseException e) {
+                System.err.println("Parsing error: " + e.getMessage());
+            } catch (final IOException e) {
+                System.err.println("Unexpected IO error: " + e.getMessage());
+            }
+            return;
+        }
         final StringWriter string = new StringWriter();
         final BufferedWriter writer = new BufferedWriter(string);
         try {
-            ObfuscateTool.obfuscate(in, writer);
+            if (RECOVER_OPTION.equals(mode)) {
+                for (final ObfuscateDiagnostic diagnostic : ObfuscateTool.obfuscateRecovering(in, writer)) {
+                    System.err.println("Parsing error: " + diagnostic);
+                }
+            } else {
+                ObfuscateTool.obfuscate(in, writer);
+            }
             System.out.println(string);
         } catch (final ObfuscateParseException e) {
             System.err.println("Parsing error: " + e.getMessage());
@@ -30,4 +71,8 @@ public class Main {
             System.err.println("Unexpected IO error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private static BufferedWriter stdout() {
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,8 @@
+package feo;
+
+public record ObfuscateDiagnostic(int line, int charPositionInLine, int charIndex, String message) {
+    @Override
+    public String toString() {
+        return "line " + line + ":" + charPositionInLine + " " + message;
+    }
+}
@@ -1,23 +1,313 @@
 package feo;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.IntervalSet;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Function;
 
 public class ObfuscateTool {
+    private static final int TOKEN_BUFFER_SIZE = 4096;
+    private static final int ITEM_BUFFER_SIZE = 64;
+    private static final int CHUNK_BUFFER_SIZE = 64;
+    private static final int PIPELINE_STAGES = 4;
+    private static final IntervalSet TOP_LEVEL_START =
+            ProgramParser._ATN.nextTokens(ProgramParser._ATN.ruleToStartState[ProgramParser.RULE_topLevel]);
+
     public static void obfuscate(final CharStream in, final BufferedWriter out) throws IOException {
-        final ProgramLexer lexer = new ProgramLexer(in);
+        obfuscate(in, out, ProgramLexer::new);
+    }
+
+    // Each whole-input mode takes the lexer to use, e.g. FastLexer::new; the default is ProgramLexer
+    public static void obfuscate(final CharStream in, final BufferedWriter out,
+                                 final Function<CharStream, ? extends Lexer> lexers) throws IOException {
+        new ObfuscateVisitor(out).visit(parse(in, lexers));
+        out.flush();
+    }
+
+    public static void obfuscateStreaming(final CharStream in, final BufferedWriter out) throws IOException {
+        final ThrowingListener listener = new ThrowingListener();
+        final ProgramLexer lexer = withListeners(new ProgramLexer(in), listener);
+        // An unbuffered input forgets consumed characters, so tokens carry their own text
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        final UnbufferedTokenStream<Token> tokens = new UnbufferedTokenStream<>(lexer);
+        final ProgramParser parser = withListeners(new ProgramParser(tokens), listener);
+        final ObfuscateVisitor visitor = new ObfuscateVisitor(out);
+        try {
+            visitor.beginProgram();
+            out.flush();
+            while (tokens.LA(1) != Token.EOF) {
+                visitor.visit(parser.topLevel());
+                out.flush();
+            }
+        } catch (final RuntimeException e) {
+            // UnbufferedCharStream reports read failures as unchecked exceptions
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        visitor.endProgram();
+        out.flush();
+    }
+
+    public static void obfuscateVariants(final CharStream in, final List<Variant> variants) throws IOException {
+        obfuscateVariants(in, variants, ProgramLexer::new);
+    }
+
+    public static void obfuscateVariants(final CharStream in, final List<Variant> variants,
+                                         final Function<CharStream, ? extends Lexer> lexers) throws IOException {
+        final ProgramParser.ProgramContext program = parse(in, lexers);
+        final int threads = Math.max(1, Math.min(variants.size(), Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (final Variant variant : variants) {
+                futures.add(executor.submit(() -> {
+                    final ObfuscateVisitor visitor = new ObfuscateVisitor(variant.out(), variant.seed());
+                    visitor.visit(program);
+                    if (visitor.ioException() != null) {
+                        throw visitor.ioException();
+                    }
+                    variant.out().flush();
+                    return null;
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            throw rethrow(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while obfuscating");
+        } finally {
+            stop(executor);
+        }
+    }
+
+    public record Variant(long seed, BufferedWriter out) {
+    }
+
+    private static ProgramParser.ProgramContext parse(final CharStream in,
+                                                      final Function<CharStream, ? extends Lexer> lexers) {
+        final ThrowingListener listener = new ThrowingListener();
+        final CommonTokenStream tokens = new CommonTokenStream(withListeners(lexers.apply(in), listener));
+        return withListeners(new ProgramParser(tokens), listener).program();
+    }
+
+    // Listeners go on before any token stream is built: unbuffered streams start lexing on construction
+    private static <T extends Recognizer<?, ?>> T withListeners(final T recognizer,
+                                                               final ANTLRErrorListener... listeners) {
+        recognizer.removeErrorListeners();
+        for (final ANTLRErrorListener listener : listeners) {
+            recognizer.addErrorListener(listener);
+        }
+        return recognizer;
+    }
+
+    // Interrupts the remaining tasks and waits for them, so none touches the caller's writers after return
+    private static void stop(final ExecutorService executor) {
+        executor.shutdownNow();
+        executor.close();
+    }
+
+    private static IOException rethrow(final ExecutionException e) {
+        switch (e.getCause()) {
+            case IOException cause -> {
+                return cause;
+            }
+            case RuntimeException cause -> throw cause;
+            case Error cause -> throw cause;
+            default -> throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public static void obfuscatePipelined(final CharStream in, final BufferedWriter out) throws IOException {
+        obfuscatePipelined(in, out, ProgramLexer::new);
+    }
+
+    public static void obfuscatePipelined(final CharStream in, final BufferedWriter out,
+                                          final Function<CharStream, ? extends Lexer> lexers) throws IOException {
         final ThrowingListener listener = new ThrowingListener();
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(listener);
-        final CommonTokenStream tokens = new CommonTokenStream(lexer);
-        final ProgramParser parser = new ProgramParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(listener);
-        final var program = parser.program();
-        new ObfuscateVisitor(out).visit(program);
+        final Lexer lexer = withListeners(lexers.apply(in), listener);
+        // Tokens outlive the lexer's view of the input, so they carry their own text
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        final Pipe<Token> tokens = new Pipe<>(TOKEN_BUFFER_SIZE);
+        final Pipe<ProgramParser.TopLevelContext> items = new Pipe<>(ITEM_BUFFER_SIZE);
+        final Pipe<String> chunks = new Pipe<>(CHUNK_BUFFER_SIZE);
+        final ExecutorService executor = Executors.newFixedThreadPool(PIPELINE_STAGES);
+        final CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        try {
+            stages.submit(() -> lexStage(lexer, tokens));
+            stages.submit(() -> parseStage(new PipeTokenSource(tokens, lexer), listener, items));
+            stages.submit(() -> renderStage(items, chunks));
+            stages.submit(() -> writeStage(chunks, out));
+            for (int i = 0; i < PIPELINE_STAGES; ++i) {
+                stages.take().get();
+            }
+        } catch (final ExecutionException e) {
+            throw rethrow(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while obfuscating");
+        } finally {
+            stop(executor);
+        }
+    }
+
+    private static Void lexStage(final TokenSource lexer, final Pipe<Token> tokens) throws InterruptedException {
+        Token token;
+        do {
+            token = lexer.nextToken();
+            tokens.put(token);
+        } while (token.getType() != Token.EOF);
+        return null;
+    }
+
+    private static Void parseStage(final TokenSource source,
+                                   final ThrowingListener listener,
+                                   final Pipe<ProgramParser.TopLevelContext> items) throws InterruptedException {
+        final UnbufferedTokenStream<Token> tokens = new UnbufferedTokenStream<>(source);
+        final ProgramParser parser = withListeners(new ProgramParser(tokens), listener);
+        while (tokens.LA(1) != Token.EOF) {
+            items.put(parser.topLevel());
+        }
+        items.close();
+        return null;
+    }
+
+    private static Void renderStage(final Pipe<ProgramParser.TopLevelContext> items,
+                                    final Pipe<String> chunks) throws InterruptedException, IOException {
+        final StringWriter string = new StringWriter();
+        final BufferedWriter writer = new BufferedWriter(string);
+        final ObfuscateVisitor visitor = new ObfuscateVisitor(writer);
+        visitor.beginProgram();
+        for (ProgramParser.TopLevelContext item = items.take(); item != null; item = items.take()) {
+            visitor.visit(item);
+            writer.flush();
+            chunks.put(string.toString());
+            string.getBuffer().setLength(0);
+        }
+        visitor.endProgram();
+        writer.flush();
+        chunks.put(string.toString());
+        chunks.close();
+        return null;
+    }
+
+    private static Void writeStage(final Pipe<String> chunks, final BufferedWriter out)
+            throws InterruptedException, IOException {
+        for (String chunk = chunks.take(); chunk != null; chunk = chunks.take()) {
+            out.write(chunk);
+            out.flush();
+        }
+        return null;
+    }
+
+    public static List<ObfuscateDiagnostic> obfuscateRecovering(final CharStream in, final BufferedWriter out)
+            throws IOException {
+        return obfuscateRecovering(in, out, ProgramLexer::new);
+    }
+
+    public static List<ObfuscateDiagnostic> obfuscateRecovering(final CharStream in, final BufferedWriter out,
+                                                                final Function<CharStream, ? extends Lexer> lexers)
+            throws IOException {
+        final CollectingListener lexerListener = new CollectingListener();
+        final CollectingListener parserListener = new CollectingListener();
+        final CommonTokenStream tokens = new CommonTokenStream(withListeners(lexers.apply(in), lexerListener));
+        final ProgramParser parser = withListeners(new ProgramParser(tokens), parserListener, new ThrowingListener());
+        final ObfuscateVisitor visitor = new ObfuscateVisitor(out);
+        visitor.beginProgram();
+        int regionStart = 0;
+        while (tokens.LA(1) != Token.EOF) {
+            final int start = tokens.index();
+            ProgramParser.TopLevelContext item;
+            try {
+                item = parser.topLevel();
+            } catch (final ObfuscateParseException e) {
+                parser.reset();
+                tokens.seek(start);
+                skipTopLevel(tokens, parserListener.diagnostics().getLast().charIndex());
+                item = null;
+            }
+            // Errors between items belong to neither of them, so the gap is kept on its own
+            final int itemStart = tokens.get(start).getStartIndex();
+            if (hasErrorsIn(lexerListener, regionStart, itemStart - 1)) {
+                visitor.writeVerbatim(in.getText(Interval.of(regionStart, itemStart - 1)).strip(), Set.of());
+            }
+            final int regionStop = tokens.LT(-1).getStopIndex();
+            if (item == null || hasErrorsIn(lexerListener, itemStart, regionStop)) {
+                visitor.writeVerbatim(in.getText(Interval.of(itemStart, regionStop)),
+                        identifiers(tokens, start, tokens.index()));
+            } else {
+                visitor.visit(item);
+            }
+            regionStart = regionStop + 1;
+        }
+        if (hasErrorsIn(lexerListener, regionStart, in.size() - 1)) {
+            visitor.writeVerbatim(in.getText(Interval.of(regionStart, in.size() - 1)).strip(), Set.of());
+        }
+        visitor.endProgram();
         out.flush();
+        final List<ObfuscateDiagnostic> diagnostics = new ArrayList<>(lexerListener.diagnostics());
+        diagnostics.addAll(parserListener.diagnostics());
+        diagnostics.sort(Comparator.comparingInt(ObfuscateDiagnostic::charIndex));
+        return diagnostics;
     }
 
+    private static Set<String> identifiers(final CommonTokenStream tokens, final int start, final int stop) {
+        final Set<String> identifiers = new HashSet<>();
+        for (final Token token : tokens.get(start, stop - 1)) {
+            if (token.getType() == ProgramLexer.IDENT) {
+                identifiers.add(token.getText());
+            }
+        }
+        return identifiers;
+    }
+
+    private static boolean hasErrorsIn(final CollectingListener listener, final int start, final int stop) {
+        return listener.diagnostics().stream().anyMatch(d -> start <= d.charIndex() && d.charIndex() <= stop);
+    }
+
+    // Skips to the end of the current top-level item: past a ';' or a balanced '{ ... }' (with an optional
+    // trailing ';') at depth zero, or up to the next preprocessor directive. Before the error position, a line
+    // starting with a token that can begin an item also ends the skip, so a stray line only costs itself.
+    private static void skipTopLevel(final TokenStream tokens, final int errorIndex) {
+        final int start = tokens.index();
+        int depth = 0;
+        while (tokens.LA(1) != Token.EOF) {
+            if (depth == 0 && tokens.index() != start && tokens.LA(1) == ProgramLexer.PREPROCESSOR) {
+                return;
+            }
+            if (depth == 0 && tokens.index() != start
+                    && tokens.LT(1).getStartIndex() <= errorIndex
+                    && tokens.LT(1).getLine() > tokens.LT(-1).getLine()
+                    && TOP_LEVEL_START.contains(tokens.LA(1))) {
+                return;
+            }
+            final String text = tokens.LT(1).getText();
+            tokens.consume();
+            if (text.equals("{")) {
+                ++depth;
+            } else if (text.equals("}") && --depth <= 0) {
+                if (tokens.LA(1) != Token.EOF && tokens.LT(1).getText().equals(";")) {
+                    tokens.consume();
+                }
+                return;
+            } else if (text.equals(";") && depth == 0) {
+                return;
+            }
+        }
+    }
 }
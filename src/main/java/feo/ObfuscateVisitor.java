@@ -22,7 +22,7 @@ public class ObfuscateVisitor extends ProgramBaseVisitor<ObfuscateVisitor.Contex
     private final Set<String> usedNames = new HashSet<>();
     private final Set<String> numericNames = new HashSet<>();
     private final Set<String> dummyVariables = new HashSet<>();
-    private final Random random = new Random();
+    private final Random random;
     private IOException ioException = null;
     private int indent = 0;
     private final static List<String> NUMERIC_TYPES = List.of(
@@ -36,7 +36,16 @@ public class ObfuscateVisitor extends ProgramBaseVisitor<ObfuscateVisitor.Contex
     private final static int MAX_RANDOM_EXPRESSION_LENGTH = 5;
 
     public ObfuscateVisitor(final BufferedWriter writer) {
+        this(writer, new Random());
+    }
+
+    public ObfuscateVisitor(final BufferedWriter writer, final long seed) {
+        this(writer, new Random(seed));
+    }
+
+    private ObfuscateVisitor(final BufferedWriter writer, final Random random) {
         this.writer = writer;
+        this.random = random;
         this.baseName = random.nextInt(1 << (NAME_WIDTH - 1), 1 << NAME_WIDTH);
     }
 
@@ -115,14 +124,47 @@ public class ObfuscateVisitor extends ProgramBaseVisitor<ObfuscateVisitor.Contex
 
     @Override
     public Context visitProgram(ProgramParser.ProgramContext ctx) {
+        beginProgram();
+        for (int i = 0; i < ctx.getChildCount(); ++i) {
+            visit(ctx.getChild(i));
+        }
+        endProgram();
+        return Context.DEFAULT;
+    }
+
+    public void beginProgram() {
         writeDefine(ZERO, 0);
         writeDefine(ONE, 1);
-        final String zero = String.valueOf(ZERO);
-        final String one = String.valueOf(ONE);
-        numericNames.add(zero);
-        numericNames.add(one);
+        numericNames.add(String.valueOf(ZERO));
+        numericNames.add(String.valueOf(ONE));
         newLine();
         enterScope();
+    }
+
+    public void endProgram() {
+        exitScope();
+        numericNames.remove(String.valueOf(ZERO));
+        numericNames.remove(String.valueOf(ONE));
+    }
+
+    public void writeVerbatim(final String text, final Set<String> identifiers) {
+        // Verbatim code still uses the original names of the renamed globals it mentions
+        final Map<String, String> globals = new TreeMap<>(scopes.getFirst());
+        globals.keySet().retainAll(identifiers);
+        for (final Map.Entry<String, String> global : globals.entrySet()) {
+            writeDefine(global.getKey(), global.getValue());
+        }
+        write(text);
+        newLine();
+        for (final String name : globals.keySet()) {
+            write("#undef " + name);
+            newLine();
+        }
+        newLine();
+    }
+
+    @Override
+    public Context visitTopLevel(ProgramParser.TopLevelContext ctx) {
         for (int i = 0; i < ctx.getChildCount(); ++i) {
             final ParseTree child = ctx.getChild(i);
             visit(child);
@@ -131,9 +173,6 @@ public class ObfuscateVisitor extends ProgramBaseVisitor<ObfuscateVisitor.Contex
                 newLine();
             }
         }
-        exitScope();
-        numericNames.remove(zero);
-        numericNames.remove(one);
         return Context.DEFAULT;
     }
 
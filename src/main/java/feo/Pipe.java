@@ -0,0 +1,32 @@
+package feo;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+class Pipe<T> {
+    private static final Object END = new Object();
+    private final BlockingQueue<Object> queue;
+
+    Pipe(final int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public void put(final T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    public void close() throws InterruptedException {
+        queue.put(END);
+    }
+
+    // Returns null once the pipe is closed and drained.
+    @SuppressWarnings("unchecked")
+    public T take() throws InterruptedException {
+        final Object item = queue.take();
+        if (item == END) {
+            queue.put(END);
+            return null;
+        }
+        return (T) item;
+    }
+}
@@ -0,0 +1,60 @@
+package feo;
+
+import org.antlr.v4.runtime.*;
+
+import java.util.concurrent.CancellationException;
+
+class PipeTokenSource implements TokenSource {
+    private final Pipe<Token> tokens;
+    private final TokenSource source;
+    private Token last = null;
+
+    PipeTokenSource(final Pipe<Token> tokens, final TokenSource source) {
+        this.tokens = tokens;
+        this.source = source;
+    }
+
+    @Override
+    public Token nextToken() {
+        if (last != null && last.getType() == Token.EOF) {
+            return last;
+        }
+        try {
+            last = tokens.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for tokens");
+        }
+        return last;
+    }
+
+    @Override
+    public int getLine() {
+        return last == null ? 1 : last.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return last == null ? 0 : last.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return last == null ? null : last.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return source.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(final TokenFactory<?> factory) {
+        source.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return source.getTokenFactory();
+    }
+}
@@ -10,7 +10,7 @@ import java.nio.file.Paths;
 import java.util.Objects;
 
 public abstract class BaseFileTester {
-    private static final String FILES_DIR = "src/test/java/feo/files";
+    protected static final String FILES_DIR = "src/test/java/feo/files";
 
     @Test
     void testFiles() throws IOException {
@@ -0,0 +1,60 @@
+package feo;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.function.Function;
+
+public class FastLexerTest extends BaseFileTester {
+    private static final int BENCHMARK_COPIES = 2000;
+    private static final int BENCHMARK_WARMUP_ROUNDS = 10;
+    private static final int BENCHMARK_ROUNDS = 30;
+
+    @Override
+    protected void handleFile(final CharStream stream) {
+        final CharStream copy = CharStreams.fromString(stream.toString());
+        LexerTest.assertSameLexing(stream, copy);
+    }
+
+    // Run with -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmark() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        for (final File file : Objects.requireNonNull(new File(FILES_DIR).listFiles())) {
+            builder.append(Files.readString(file.toPath())).append('\n');
+        }
+        final String text = builder.toString().repeat(BENCHMARK_COPIES);
+        long antlr = Long.MAX_VALUE;
+        long fast = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_WARMUP_ROUNDS + BENCHMARK_ROUNDS; ++round) {
+            final long antlrRound = measure(text, ProgramLexer::new);
+            final long fastRound = measure(text, FastLexer::new);
+            if (round >= BENCHMARK_WARMUP_ROUNDS) {
+                antlr = Math.min(antlr, antlrRound);
+                fast = Math.min(fast, fastRound);
+            }
+        }
+        System.out.printf("Lexing %d chars, best of %d rounds: ProgramLexer %d ms, FastLexer %d ms%n",
+                text.length(), BENCHMARK_ROUNDS, antlr, fast);
+    }
+
+    private static long measure(final String text, final Function<CharStream, Lexer> factory) {
+        final long start = System.nanoTime();
+        final Lexer lexer = factory.apply(CharStreams.fromString(text));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new ThrowingListener());
+        while (lexer.nextToken().getType() != Token.EOF) {
+            // Only the lexing itself is measured
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
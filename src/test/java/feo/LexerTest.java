@@ -1,12 +1,15 @@
 package feo;
 
 
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.Token;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -15,6 +18,14 @@ class LexerTest {
     final Random random = new Random();
     final static int MAX_SPACE = 16;
     final char[] SPACES = {' ', '\t', '\r', '\n'};
+    final static int FUZZ_ITERATIONS = 10000;
+    final static int MAX_FUZZ_LENGTH = 64;
+    final String[] FUZZ_FRAGMENTS = {
+            " ", "\t", "\r", "\n", "\\", "'", "\"", "/", "*", "#", "!", "|", "&", "=", "<", ">", "+", "-",
+            "$", "@", "\u00e9", "\uD83D\uDE00", "0", "42", "a", "_x1", "n", "t",
+            "long", "unsigned", "signed", "const", "int", "char", "short", "double", "if", "else", "return",
+            "//", "/*", "*/", "long long", "unsigned long long", "signed char", "'\\n'", "\"\\\"\""
+    };
 
     String space() {
         final int length = random.nextInt(1, MAX_SPACE);
@@ -51,13 +62,22 @@ class LexerTest {
     }
 
     void testThrows(final String ... tokens) {
+        final String text = withSpaces(tokens);
         Assertions.assertThrows(ObfuscateParseException.class, () -> {
-            testUnnamed(tokens);
+            getTokens(new ProgramLexer(CharStreams.fromString(text)));
+        });
+        Assertions.assertThrows(ObfuscateParseException.class, () -> {
+            getTokens(new FastLexer(CharStreams.fromString(text)));
         });
     }
 
     List<Token> getTokens(final String text) {
-        final ProgramLexer lexer = new ProgramLexer(CharStreams.fromString(text));
+        final List<Token> tokens = getTokens(new ProgramLexer(CharStreams.fromString(text)));
+        assertSameTokens(tokens, getTokens(new FastLexer(CharStreams.fromString(text))));
+        return tokens;
+    }
+
+    List<Token> getTokens(final Lexer lexer) {
         lexer.removeErrorListeners();
         lexer.addErrorListener(new ThrowingListener());
         final CommonTokenStream tokens = new CommonTokenStream(lexer);
@@ -65,6 +85,51 @@ class LexerTest {
         return tokens.getTokens();
     }
 
+    static void assertSameTokens(final List<Token> expected, final List<Token> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            Assertions.assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+
+    static void assertSameLexing(final CharStream expected, final CharStream actual) {
+        final CollectingListener expectedErrors = new CollectingListener();
+        final CollectingListener actualErrors = new CollectingListener();
+        final ProgramLexer expectedLexer = new ProgramLexer(expected);
+        expectedLexer.removeErrorListeners();
+        expectedLexer.addErrorListener(expectedErrors);
+        final FastLexer actualLexer = new FastLexer(actual);
+        actualLexer.removeErrorListeners();
+        actualLexer.addErrorListener(actualErrors);
+        Token token;
+        do {
+            token = expectedLexer.nextToken();
+            Assertions.assertEquals(token.toString(), actualLexer.nextToken().toString());
+            assertSameState(expectedLexer, actualLexer);
+        } while (token.getType() != Token.EOF);
+        Assertions.assertEquals(expectedErrors.diagnostics(), actualErrors.diagnostics());
+    }
+
+    static void assertSameState(final Lexer expected, final Lexer actual) {
+        Assertions.assertEquals(expected.getToken().toString(), actual.getToken().toString());
+        Assertions.assertEquals(expected.getType(), actual.getType());
+        Assertions.assertEquals(expected.getChannel(), actual.getChannel());
+        Assertions.assertEquals(expected.getText(), actual.getText());
+        Assertions.assertEquals(expected.getLine(), actual.getLine());
+        Assertions.assertEquals(expected.getCharPositionInLine(), actual.getCharPositionInLine());
+        Assertions.assertEquals(expected.getCharIndex(), actual.getCharIndex());
+        Assertions.assertEquals(expected._hitEOF, actual._hitEOF);
+    }
+
+    String fuzz() {
+        final int length = random.nextInt(MAX_FUZZ_LENGTH);
+        final List<String> fragments = new ArrayList<>();
+        for (int i = 0; i < length; ++i) {
+            fragments.add(FUZZ_FRAGMENTS[random.nextInt(FUZZ_FRAGMENTS.length)]);
+        }
+        return String.join("", fragments);
+    }
+
     @Test
     void testSimple() {
         testTypes("");
@@ -124,4 +189,12 @@ class LexerTest {
         testThrows("!");
         testThrows("`foo`");
     }
+
+    @Test
+    void testFuzz() {
+        for (int i = 0; i < FUZZ_ITERATIONS; ++i) {
+            final String text = fuzz();
+            assertSameLexing(CharStreams.fromString(text), CharStreams.fromString(text));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package feo;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+
+class PipelineTest extends BaseFileTester {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    String obfuscate(final CharStream stream) {
+        final StringWriter stringWriter = new StringWriter();
+        final BufferedWriter writer = new BufferedWriter(stringWriter);
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> ObfuscateTool.obfuscatePipelined(stream, writer));
+        return stringWriter.toString();
+    }
+
+    @Override
+    protected void handleFile(final CharStream stream) {
+        Assertions.assertFalse(obfuscate(stream).isEmpty());
+    }
+
+    @Test
+    void testOrder() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            builder.append("int f").append(i).append("() { return ").append(i).append("; }\n");
+        }
+        final String output = obfuscate(CharStreams.fromString(builder.toString()));
+        int position = 0;
+        for (int i = 0; i < 1000; ++i) {
+            position = output.indexOf("int f" + i + "()", position);
+            Assertions.assertTrue(position >= 0);
+        }
+    }
+
+    @Test
+    void testThrows() {
+        Assertions.assertThrows(ObfuscateParseException.class, () -> Assertions.assertTimeoutPreemptively(TIMEOUT,
+                () -> ObfuscateTool.obfuscatePipelined(CharStreams.fromString("int main() { $ }"),
+                        new BufferedWriter(new StringWriter()))));
+        Assertions.assertThrows(ObfuscateParseException.class, () -> Assertions.assertTimeoutPreemptively(TIMEOUT,
+                () -> ObfuscateTool.obfuscatePipelined(CharStreams.fromString("struct A { int x; };"),
+                        new BufferedWriter(new StringWriter()))));
+    }
+
+    @Test
+    void testEmpty() {
+        Assertions.assertTrue(obfuscate(CharStreams.fromString("")).startsWith("#define"));
+    }
+
+    @Test
+    void testNoWritesAfterFailure() throws InterruptedException {
+        final SlowWriter slow = new SlowWriter();
+        final String program = "int f() { return 1; }\n".repeat(200) + "int g() { return; ; }";
+        Assertions.assertThrows(ObfuscateParseException.class, () -> ObfuscateTool.obfuscatePipelined(
+                CharStreams.fromString(program), new BufferedWriter(slow, 1)));
+        final int afterReturn = slow.writes();
+        Thread.sleep(200);
+        Assertions.assertEquals(afterReturn, slow.writes());
+    }
+}
@@ -0,0 +1,132 @@
+package feo;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Lexer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class RecoveryTest extends BaseFileTester {
+    String output;
+
+    List<ObfuscateDiagnostic> obfuscate(final String text) {
+        return obfuscate(text, ProgramLexer::new);
+    }
+
+    List<ObfuscateDiagnostic> obfuscate(final String text, final Function<CharStream, ? extends Lexer> lexers) {
+        final StringWriter stringWriter = new StringWriter();
+        final BufferedWriter writer = new BufferedWriter(stringWriter);
+        try {
+            final List<ObfuscateDiagnostic> diagnostics =
+                    ObfuscateTool.obfuscateRecovering(CharStreams.fromString(text), writer, lexers);
+            output = stringWriter.toString();
+            return diagnostics;
+        } catch (final IOException e) {
+            return Assertions.fail(e);
+        }
+    }
+
+    @Override
+    protected void handleFile(final CharStream stream) {
+        final StringWriter stringWriter = new StringWriter();
+        try {
+            Assertions.assertEquals(List.of(),
+                    ObfuscateTool.obfuscateRecovering(stream, new BufferedWriter(stringWriter)));
+        } catch (final IOException e) {
+            Assertions.fail(e);
+        }
+        Assertions.assertFalse(stringWriter.toString().isEmpty());
+    }
+
+    @Test
+    void testStruct() {
+        final List<ObfuscateDiagnostic> diagnostics = obfuscate(
+                "int before() { return 0; }\nstruct A { int x; };\nint after() { int y = 1; return y; }");
+        Assertions.assertEquals(1, diagnostics.size());
+        Assertions.assertEquals(2, diagnostics.getFirst().line());
+        Assertions.assertTrue(output.contains("struct A { int x; };"));
+        Assertions.assertTrue(output.contains("int before()"));
+        Assertions.assertTrue(output.contains("int after()"));
+        Assertions.assertFalse(output.contains("int y"));
+    }
+
+    @Test
+    void testArray() {
+        final List<ObfuscateDiagnostic> diagnostics = obfuscate("int a[10];\nint b = 2;\n#include <stdio.h>");
+        Assertions.assertFalse(diagnostics.isEmpty());
+        Assertions.assertTrue(diagnostics.stream().allMatch(d -> d.line() == 1));
+        Assertions.assertTrue(output.contains("int a[10];"));
+        Assertions.assertFalse(output.contains("int b"));
+        Assertions.assertTrue(output.contains("#include <stdio.h>"));
+    }
+
+    @Test
+    void testUnterminated() {
+        final List<ObfuscateDiagnostic> diagnostics = obfuscate("int x = 1;\nint main() { return x;");
+        Assertions.assertEquals(1, diagnostics.size());
+        Assertions.assertTrue(output.contains("int main() { return x;"));
+    }
+
+    @Test
+    void testTrailingGarbage() {
+        final List<ObfuscateDiagnostic> diagnostics = obfuscate("int x = 1;\n@");
+        Assertions.assertEquals(1, diagnostics.size());
+        Assertions.assertTrue(output.contains("@"));
+    }
+
+    @Test
+    void testVerbatimUsesRenamedGlobals() {
+        obfuscate("int x = 1;\nint main() { return x;");
+        final Matcher declaration = Pattern.compile("int (\\w+) = ").matcher(output);
+        Assertions.assertTrue(declaration.find());
+        final String renamed = declaration.group(1);
+        Assertions.assertNotEquals("x", renamed);
+        final int define = output.indexOf("#define x " + renamed);
+        final int verbatim = output.indexOf("int main() { return x;");
+        Assertions.assertTrue(0 <= define && define < verbatim);
+        Assertions.assertTrue(output.indexOf("#undef x") > verbatim);
+    }
+
+    @Test
+    void testErrorBetweenItems() {
+        final List<ObfuscateDiagnostic> diagnostics = obfuscate("int a;\n@\nint f() { int y = 1; return y; }");
+        Assertions.assertEquals(1, diagnostics.size());
+        Assertions.assertTrue(output.contains("@"));
+        Assertions.assertTrue(output.contains("int f()"));
+        Assertions.assertFalse(output.contains("int y"));
+    }
+
+    @Test
+    void testVerbatimHidesUnusedGlobals() {
+        obfuscate("int secret = 1;\nint x = 2;\nint main() { return x;");
+        Assertions.assertTrue(output.contains("#define x "));
+        Assertions.assertFalse(output.contains("secret"));
+    }
+
+    @Test
+    void testStrayLine() {
+        final List<ObfuscateDiagnostic> diagnostics =
+                obfuscate("int f() { return 1; } garbage\nint h() { int y = 2; return y; }");
+        Assertions.assertEquals(1, diagnostics.size());
+        Assertions.assertEquals(2, diagnostics.getFirst().line());
+        Assertions.assertTrue(output.contains("garbage"));
+        Assertions.assertTrue(output.contains("int h()"));
+        Assertions.assertFalse(output.contains("int y"));
+    }
+
+    @Test
+    void testFastLexer() {
+        for (final String text : List.of("int x = 1;\n@", "int a;\n@\nint f() { return 1; }",
+                "int f() { return 1; } garbage\nint h() { return 2; }", "int \"s\n$ int y;")) {
+            Assertions.assertEquals(obfuscate(text), obfuscate(text, FastLexer::new));
+        }
+    }
+}
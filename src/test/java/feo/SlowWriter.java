@@ -0,0 +1,31 @@
+package feo;
+
+import java.io.Writer;
+
+// Counts writes and spends a millisecond on each, ignoring interrupts like most real output streams
+class SlowWriter extends Writer {
+    private static final long WRITE_NANOS = 1_000_000;
+
+    private volatile int writes;
+
+    int writes() {
+        return writes;
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) {
+        final long end = System.nanoTime() + WRITE_NANOS;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+        ++writes;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,69 @@
+package feo;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+class StreamingTest extends BaseFileTester {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int BUFFER_SIZE = 16;
+
+    static CharStream stream(final InputStream in) {
+        return new UnbufferedCharStream(in, BUFFER_SIZE, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void handleFile(final CharStream stream) {
+        final byte[] bytes = stream.toString().getBytes(StandardCharsets.UTF_8);
+        final StringWriter stringWriter = new StringWriter();
+        try {
+            ObfuscateTool.obfuscateStreaming(stream(new ByteArrayInputStream(bytes)), new BufferedWriter(stringWriter));
+        } catch (final IOException e) {
+            Assertions.fail(e);
+        }
+        Assertions.assertFalse(stringWriter.toString().isEmpty());
+    }
+
+    @Test
+    void testIncremental() throws IOException {
+        final PipedOutputStream source = new PipedOutputStream();
+        final PipedInputStream sink = new PipedInputStream(source);
+        final StringWriter stringWriter = new StringWriter();
+        final CompletableFuture<Void> result = CompletableFuture.runAsync(() -> {
+            try {
+                ObfuscateTool.obfuscateStreaming(stream(sink), new BufferedWriter(stringWriter));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        // The parser needs one token of lookahead past an item before it is complete
+        source.write("int first() { return 1; }\nint ".getBytes(StandardCharsets.UTF_8));
+        source.flush();
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+            while (!stringWriter.toString().contains("int first()")) {
+                Thread.sleep(10);
+            }
+        });
+        Assertions.assertFalse(stringWriter.toString().contains("second"));
+        source.write("second() { return 2; }\n".getBytes(StandardCharsets.UTF_8));
+        source.close();
+        Assertions.assertTimeoutPreemptively(TIMEOUT, () -> result.get());
+        Assertions.assertTrue(stringWriter.toString().contains("int second()"));
+    }
+
+    @Test
+    void testThrows() {
+        Assertions.assertThrows(ObfuscateParseException.class, () -> ObfuscateTool.obfuscateStreaming(
+                stream(new ByteArrayInputStream("struct A { int x; };".getBytes(StandardCharsets.UTF_8))),
+                new BufferedWriter(new StringWriter())));
+        Assertions.assertThrows(ObfuscateParseException.class, () -> ObfuscateTool.obfuscateStreaming(
+                stream(new ByteArrayInputStream("$ int x;".getBytes(StandardCharsets.UTF_8))),
+                new BufferedWriter(new StringWriter())));
+    }
+}
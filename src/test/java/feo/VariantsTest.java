@@ -0,0 +1,88 @@
+package feo;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+class VariantsTest extends BaseFileTester {
+    private static final int VARIANTS = 8;
+
+    @Override
+    protected void handleFile(final CharStream stream) {
+        final List<StringWriter> strings = new ArrayList<>();
+        final List<ObfuscateTool.Variant> variants = new ArrayList<>();
+        for (int i = 0; i < VARIANTS; ++i) {
+            final StringWriter string = new StringWriter();
+            strings.add(string);
+            variants.add(new ObfuscateTool.Variant(i % 2, new BufferedWriter(string)));
+        }
+        final StringWriter expected = new StringWriter();
+        final StringWriter fast = new StringWriter();
+        try {
+            ObfuscateTool.obfuscateVariants(stream, variants);
+            stream.seek(0);
+            ObfuscateTool.obfuscateVariants(stream, List.of(new ObfuscateTool.Variant(0, new BufferedWriter(fast))),
+                    FastLexer::new);
+            stream.seek(0);
+            final BufferedWriter writer = new BufferedWriter(expected);
+            new ObfuscateVisitor(writer, 0).visit(new ProgramParser(new CommonTokenStream(
+                    new ProgramLexer(stream))).program());
+            writer.flush();
+        } catch (final IOException e) {
+            Assertions.fail(e);
+        }
+        for (int i = 0; i < VARIANTS; ++i) {
+            Assertions.assertEquals(strings.get(i % 2).toString(), strings.get(i).toString());
+        }
+        Assertions.assertEquals(expected.toString(), strings.getFirst().toString());
+        Assertions.assertEquals(expected.toString(), fast.toString());
+    }
+
+    @Test
+    void testFailingSink() {
+        final List<ObfuscateTool.Variant> variants = List.of(
+                new ObfuscateTool.Variant(0, new BufferedWriter(new StringWriter())),
+                new ObfuscateTool.Variant(1, new BufferedWriter(failingWriter(), 1)));
+        Assertions.assertThrows(IOException.class, () -> ObfuscateTool.obfuscateVariants(
+                CharStreams.fromString("int main() { return 0; }"), variants));
+    }
+
+    @Test
+    void testNoWritesAfterFailure() throws InterruptedException {
+        final SlowWriter slow = new SlowWriter();
+        final List<ObfuscateTool.Variant> variants = List.of(
+                new ObfuscateTool.Variant(0, new BufferedWriter(failingWriter(), 1)),
+                new ObfuscateTool.Variant(1, new BufferedWriter(slow, 16)));
+        Assertions.assertThrows(IOException.class, () -> ObfuscateTool.obfuscateVariants(
+                CharStreams.fromString("int f() { return 1; }\n".repeat(50)), variants));
+        final int afterReturn = slow.writes();
+        Thread.sleep(200);
+        Assertions.assertEquals(afterReturn, slow.writes());
+    }
+
+    private static Writer failingWriter() {
+        return new Writer() {
+            @Override
+            public void write(final char[] buffer, final int offset, final int length) throws IOException {
+                throw new IOException("Sink is closed");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}